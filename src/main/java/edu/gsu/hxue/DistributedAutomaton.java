@@ -0,0 +1,318 @@
+package edu.gsu.hxue;
+
+import java.awt.*;
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs a Life-like automaton too large for one JVM by splitting the cell space into horizontal strips,
+ * each stepped by a {@link SubdomainWorker} process. Workers report downsampled tiles (one tile per
+ * downsample x downsample block, shaded by its live density), which the coordinator folds into an
+ * overview of at most {@value #MAX_VIEW_CELLS} cells a side. It shows the overview in a
+ * {@link CellularAutomataPresentation}, or prints the population when there is no display.
+ * <p>
+ * Usage: DistributedAutomaton width height workers generations [reportInterval] [downsample] [rule]
+ * [density] [seed] [basePort]
+ * <p>
+ * By default the workers are started as child processes on this machine, and ports basePort to
+ * basePort + workers - 1 must be free. To place workers on other machines, set the system properties
+ * coordinator.host (this machine's address as the workers see it) and worker.hosts (a comma separated
+ * host per rank). The coordinator then prints the command for each worker instead of starting it;
+ * worker r listens on basePort + 1 + r of its own host.
+ */
+public class DistributedAutomaton {
+    private static final int ACCEPT_POLL_MILLIS = 500;
+    static final int MAX_VIEW_CELLS = 800;
+
+    private final int width;
+    private final int height;
+    private final int workers;
+    private final int generations;
+    private final int reportInterval;
+    private final int downsample;
+    private final LifeLikeRule rule;
+    private final double density;
+    private final long seed;
+    private final int basePort;
+
+    // where the workers run; null hosts mean local child processes
+    private String coordinatorHost = "localhost";
+    private String[] workerHosts;
+
+    // tiles reported by the workers, never more per strip than the strip has cells
+    private final int tileWidth;
+    private final int tileHeight;
+    private final byte[] tileRow;
+
+    // overview of the whole space, each view cell averaging viewDownsample x viewDownsample tiles
+    private final int viewDownsample;
+    private final int viewWidth;
+    private final int viewHeight;
+    private final long[] viewSums;
+    private final int[] viewTiles;
+    private final int[] viewShades;
+    private final Color[] shades = new Color[256];
+
+    private CellularAutomataPresentation view;
+
+    public DistributedAutomaton(int width, int height, int workers, int generations, int reportInterval,
+                                int downsample, LifeLikeRule rule, double density, long seed, int basePort) {
+        if (width <= 0 || height <= 0 || workers <= 0 || generations < 0 || reportInterval <= 0 || downsample <= 0)
+            throw new IllegalArgumentException("Sizes, counts and intervals must be positive");
+        if (workers > SubdomainWorker.blocks(height, downsample))
+            throw new IllegalArgumentException("Too many workers for " + height + " rows at downsample " + downsample);
+        if (!LifeLikeRule.fitsInArray(width, largestStrip(height, workers, downsample)))
+            throw new IllegalArgumentException("Strips of " + width + " x " + height + " cells over " + workers
+                    + " workers are too large for one worker, use more workers");
+
+        this.width = width;
+        this.height = height;
+        this.workers = workers;
+        this.generations = generations;
+        this.reportInterval = reportInterval;
+        this.downsample = downsample;
+        this.rule = rule;
+        this.density = density;
+        this.seed = seed;
+        this.basePort = basePort;
+
+        tileWidth = SubdomainWorker.blocks(width, downsample);
+        tileHeight = SubdomainWorker.blocks(height, downsample);
+        tileRow = new byte[tileWidth];
+
+        viewDownsample = SubdomainWorker.blocks(Math.max(tileWidth, tileHeight), MAX_VIEW_CELLS);
+        viewWidth = SubdomainWorker.blocks(tileWidth, viewDownsample);
+        viewHeight = SubdomainWorker.blocks(tileHeight, viewDownsample);
+        viewSums = new long[viewWidth * viewHeight];
+        viewTiles = new int[viewWidth * viewHeight];
+        for (int y = 0; y < viewHeight; y++)
+            for (int x = 0; x < viewWidth; x++)
+                viewTiles[y * viewWidth + x] = (Math.min(tileWidth, (x + 1) * viewDownsample) - x * viewDownsample)
+                        * (Math.min(tileHeight, (y + 1) * viewDownsample) - y * viewDownsample);
+        viewShades = new int[viewWidth * viewHeight];
+        Arrays.fill(viewShades, -1);
+
+        for (int i = 0; i < shades.length; i++)
+            shades[i] = new Color(255 - i, 255 - i, 255 - i); // white is empty, black is full
+    }
+
+    private static int largestStrip(int height, int workers, int downsample) {
+        int largest = 0;
+        for (int rank = 0; rank < workers; rank++)
+            largest = Math.max(largest, SubdomainWorker.stripStart(rank + 1, workers, height, downsample)
+                    - SubdomainWorker.stripStart(rank, workers, height, downsample));
+        return largest;
+    }
+
+    /**
+     * Run the workers on the given hosts, one per rank, instead of as local child processes. The
+     * workers must then be started by hand with the commands printed by {@link #run()}.
+     */
+    public void setWorkerHosts(String coordinatorHost, String[] workerHosts) {
+        if (workerHosts.length != workers)
+            throw new IllegalArgumentException("Expected " + workers + " worker hosts but got " + workerHosts.length);
+        this.coordinatorHost = coordinatorHost;
+        this.workerHosts = workerHosts.clone();
+    }
+
+    public void setView(CellularAutomataPresentation view) {
+        this.view = view;
+    }
+
+    public int getViewWidth() {
+        return viewWidth;
+    }
+
+    public int getViewHeight() {
+        return viewHeight;
+    }
+
+    /**
+     * Start the worker processes, gather their tiles until the last generation and wait for them to exit.
+     *
+     * @return the population of the last generation
+     */
+    public long run() throws IOException, InterruptedException {
+        List<Process> processes = new ArrayList<Process>();
+        Socket[] sockets = new Socket[workers];
+        try (ServerSocket server = new ServerSocket(basePort)) {
+            for (int rank = 0; rank < workers; rank++)
+                if (workerHosts == null)
+                    processes.add(startWorker(rank));
+                else
+                    System.out.println("Start worker " + rank + " on " + workerHosts[rank] + ": java -cp <classpath> "
+                            + SubdomainWorker.class.getName() + " " + join(workerArguments(rank)));
+
+            // poll, so a worker that dies before connecting does not leave us waiting forever
+            server.setSoTimeout(ACCEPT_POLL_MILLIS);
+            DataInputStream[] reports = new DataInputStream[workers];
+            for (int connected = 0; connected < workers; ) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    checkUnconnectedWorkers(processes, sockets);
+                    continue;
+                }
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                int rank = in.readInt();
+                if (rank < 0 || rank >= workers || sockets[rank] != null) {
+                    socket.close();
+                    throw new IOException("Unexpected worker rank " + rank + " from " + socket.getRemoteSocketAddress());
+                }
+                sockets[rank] = socket;
+                reports[rank] = in;
+                connected++;
+            }
+
+            long population = 0;
+            for (int generation = 0; generation <= generations; generation++) {
+                if (!SubdomainWorker.isReportGeneration(generation, generations, reportInterval))
+                    continue;
+
+                population = 0;
+                Arrays.fill(viewSums, 0);
+                for (int rank = 0; rank < workers; rank++)
+                    population += readReport(reports[rank], rank, generation);
+                show(generation, population);
+            }
+
+            for (int rank = 0; rank < processes.size(); rank++)
+                if (processes.get(rank).waitFor() != 0)
+                    throw new IOException("Worker " + rank + " exited with code " + processes.get(rank).exitValue());
+            return population;
+        } finally {
+            for (Socket socket : sockets)
+                if (socket != null)
+                    socket.close();
+            for (Process process : processes)
+                process.destroy();
+        }
+    }
+
+    private static void checkUnconnectedWorkers(List<Process> processes, Socket[] sockets) throws IOException {
+        for (int rank = 0; rank < processes.size(); rank++)
+            if (sockets[rank] == null && !processes.get(rank).isAlive())
+                throw new IOException("Worker " + rank + " exited with code " + processes.get(rank).exitValue()
+                        + " before connecting");
+    }
+
+    private Process startWorker(int rank) throws IOException {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SubdomainWorker.class.getName());
+        command.addAll(workerArguments(rank));
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    private String workerHost(int rank) {
+        return workerHosts == null ? "localhost" : workerHosts[rank];
+    }
+
+    /**
+     * The command line arguments of a SubdomainWorker, including the addresses of its neighbours.
+     */
+    List<String> workerArguments(int rank) {
+        List<String> command = new ArrayList<String>();
+        command.add(coordinatorHost + ":" + basePort);
+        command.add(rank < workers - 1 ? String.valueOf(basePort + 1 + rank) : "-");
+        command.add(rank > 0 ? workerHost(rank - 1) + ":" + (basePort + rank) : "-");
+        command.add(String.valueOf(rank));
+        command.add(String.valueOf(workers));
+        command.add(String.valueOf(width));
+        command.add(String.valueOf(height));
+        command.add(String.valueOf(generations));
+        command.add(String.valueOf(reportInterval));
+        command.add(String.valueOf(downsample));
+        command.add(String.valueOf(seed));
+        command.add(String.valueOf(density));
+        command.add(rule.toString());
+        return command;
+    }
+
+    private static String join(List<String> arguments) {
+        StringBuilder joined = new StringBuilder();
+        for (String argument : arguments)
+            joined.append(joined.length() > 0 ? " " : "").append(argument);
+        return joined.toString();
+    }
+
+    /**
+     * Read one worker's report into the overview, one tile row at a time.
+     *
+     * @return the population of the worker's strip
+     */
+    private long readReport(DataInputStream in, int rank, int generation) throws IOException {
+        int received = in.readInt();
+        if (received != generation)
+            throw new IOException("Expected report of generation " + generation + " from worker " + rank + " but got " + received);
+        long population = in.readLong();
+        int tileRows = in.readInt();
+        int firstTileRow = SubdomainWorker.stripStart(rank, workers, height, downsample) / downsample;
+        for (int y = firstTileRow; y < firstTileRow + tileRows; y++) {
+            in.readFully(tileRow);
+            int viewRow = (y / viewDownsample) * viewWidth;
+            for (int x = 0; x < tileWidth; x++)
+                viewSums[viewRow + x / viewDownsample] += tileRow[x] & 0xff;
+        }
+        return population;
+    }
+
+    private void show(int generation, long population) {
+        if (view == null) {
+            System.out.println("generation " + generation + " population " + population);
+            return;
+        }
+
+        // only cells whose shade changed are redrawn
+        for (int y = 0; y < viewHeight; y++)
+            for (int x = 0; x < viewWidth; x++) {
+                int i = y * viewWidth + x;
+                int shade = (int) (viewSums[i] / viewTiles[i]);
+                if (shade != viewShades[i]) {
+                    viewShades[i] = shade;
+                    view.setCellColor(x, y, shades[shade]);
+                }
+            }
+        view.drawDirtyCellsInBuffer();
+        view.showBufferOnScreen();
+        view.setTitle(rule + " generation " + generation);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: DistributedAutomaton width height workers generations [reportInterval] "
+                    + "[downsample] [rule] [density] [seed] [basePort]");
+            System.exit(2);
+        }
+
+        DistributedAutomaton automaton = new DistributedAutomaton(
+                Integer.parseInt(args[0]),
+                Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]),
+                Integer.parseInt(args[3]),
+                args.length > 4 ? Integer.parseInt(args[4]) : 10,
+                args.length > 5 ? Integer.parseInt(args[5]) : 4,
+                LifeLikeRule.parse(args.length > 6 ? args[6] : "B3/S23"),
+                args.length > 7 ? Double.parseDouble(args[7]) : 0.3,
+                args.length > 8 ? Long.parseLong(args[8]) : 1L,
+                args.length > 9 ? Integer.parseInt(args[9]) : 47000);
+
+        if (System.getProperty("worker.hosts") != null)
+            automaton.setWorkerHosts(System.getProperty("coordinator.host", "localhost"),
+                    System.getProperty("worker.hosts").split(","));
+
+        if (!GraphicsEnvironment.isHeadless()) {
+            double scalar = Math.max(1, (double) MAX_VIEW_CELLS / Math.max(automaton.getViewWidth(), automaton.getViewHeight()));
+            automaton.setView(new CellularAutomataPresentation(automaton.getViewWidth(), automaton.getViewHeight(), scalar));
+        }
+        automaton.run();
+    }
+}
@@ -0,0 +1,271 @@
+package edu.gsu.hxue;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs many {@link HeadlessAutomaton} instances concurrently on a work-stealing pool and streams a
+ * {@link Summary} of every generation to a {@link SummaryListener}.
+ * <p>
+ * Each run has its own step budget. Any run can be promoted to a window at any time; a run that is
+ * stepping opens it before its next step, any other run opens it straight away.
+ * <p>
+ * An ensemble is run once: runs are added, {@link #run(SummaryListener)} steps them all through their
+ * budgets, and after that neither adding nor running again is allowed.
+ */
+public class EnsembleRunner {
+    private final ForkJoinPool pool;
+    private final List<Run> runs = new ArrayList<Run>();
+    private boolean started; // guarded by this
+
+    public EnsembleRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public EnsembleRunner(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * The state of one run after one of its generations.
+     */
+    public static class Summary {
+        public final int runId;
+        public final int generation;
+        public final long population;
+        public final int changed;
+        public final double changeRate; // changed cells divided by all cells
+
+        Summary(int runId, int generation, long population, int changed, double changeRate) {
+            this.runId = runId;
+            this.generation = generation;
+            this.population = population;
+            this.changed = changed;
+            this.changeRate = changeRate;
+        }
+
+        @Override
+        public String toString() {
+            return "run " + runId + " generation " + generation + " population " + population
+                    + " change rate " + changeRate;
+        }
+    }
+
+    /**
+     * Receives summaries as runs progress. Called from pool threads, possibly concurrently for
+     * different runs, so implementations must be thread safe.
+     */
+    public interface SummaryListener {
+        void summary(Summary summary);
+    }
+
+    private static class Run {
+        final int id;
+        final HeadlessAutomaton automaton;
+        final int stepBudget;
+
+        // guarded by the run itself
+        boolean stepping;
+        volatile double promotionScalar; // 0 unless a promotion is pending
+
+        Run(int id, HeadlessAutomaton automaton, int stepBudget) {
+            this.id = id;
+            this.automaton = automaton;
+            this.stepBudget = stepBudget;
+        }
+    }
+
+    /**
+     * Add a run to the ensemble.
+     *
+     * @return the id of the run
+     */
+    public synchronized int add(HeadlessAutomaton automaton, int stepBudget) {
+        if (started)
+            throw new IllegalStateException("The ensemble has already been run");
+        if (stepBudget < 0)
+            throw new IllegalArgumentException("Step budget must not be negative");
+
+        Run run = new Run(runs.size(), automaton, stepBudget);
+        runs.add(run);
+        return run.id;
+    }
+
+    public int add(int width, int height, LifeLikeRule rule, double density, long seed, int stepBudget) {
+        return add(new HeadlessAutomaton(width, height, rule, density, seed), stepBudget);
+    }
+
+    /**
+     * Open a window for a run. A run that is stepping opens it before its next step, or when it
+     * finishes, whichever comes first; otherwise the window is opened before this method returns.
+     */
+    public void promote(int runId, double scalar) {
+        if (scalar <= 0)
+            throw new IllegalArgumentException("Scalar must be positive");
+
+        Run run;
+        synchronized (this) {
+            run = runs.get(runId);
+        }
+        synchronized (run) {
+            if (run.stepping)
+                run.promotionScalar = scalar;
+            else
+                run.automaton.promote(scalar);
+        }
+    }
+
+    private static void applyPendingPromotion(Run run) {
+        synchronized (run) {
+            if (run.promotionScalar > 0 && !run.automaton.isPromoted())
+                run.automaton.promote(run.promotionScalar);
+            run.promotionScalar = 0;
+        }
+    }
+
+    /**
+     * Run every run to the end of its step budget. Generation 0 is reported before the first step.
+     * <p>
+     * If a run or the listener throws, the other runs stop at their next step and this method throws
+     * an IllegalStateException once all of them have stopped, so the listener is never called after
+     * it returns. The same holds if the calling thread is interrupted: the runs are stopped and
+     * waited for, then the interrupt is restored and the InterruptedException rethrown.
+     *
+     * @throws IllegalStateException if the ensemble has already been run
+     */
+    public void run(final SummaryListener listener) throws InterruptedException {
+        List<Run> snapshot;
+        synchronized (this) {
+            if (started)
+                throw new IllegalStateException("The ensemble has already been run");
+            started = true;
+            snapshot = new ArrayList<Run>(runs);
+        }
+
+        // ForkJoinTask.cancel does not stop a task that has started, so runs poll this instead
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (final Run run : snapshot)
+            futures.add(pool.submit(new Runnable() {
+                public void run() {
+                    execute(run, listener, cancelled);
+                }
+            }));
+
+        Throwable failure = null;
+        try {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null)
+                        failure = e.getCause();
+                    cancelled.set(true);
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            for (Future<?> future : futures)
+                awaitUninterruptibly(future);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+
+        if (failure != null)
+            throw new IllegalStateException("Ensemble run failed", failure);
+    }
+
+    private static void awaitUninterruptibly(Future<?> future) {
+        while (true) {
+            try {
+                future.get();
+                return;
+            } catch (InterruptedException e) {
+                // keep waiting, the interrupt is restored by the caller
+            } catch (ExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    private static void execute(Run run, SummaryListener listener, AtomicBoolean cancelled) {
+        if (cancelled.get())
+            return;
+
+        HeadlessAutomaton automaton = run.automaton;
+        double cells = (double) automaton.getXDim() * automaton.getYDim();
+
+        synchronized (run) {
+            run.stepping = true;
+        }
+        try {
+            listener.summary(new Summary(run.id, automaton.getGeneration(), automaton.population(), 0, 0));
+            for (int step = 0; step < run.stepBudget && !cancelled.get(); step++) {
+                if (run.promotionScalar > 0)
+                    applyPendingPromotion(run);
+
+                int changed = automaton.step();
+                listener.summary(new Summary(run.id, automaton.getGeneration(), automaton.population(), changed,
+                        changed / cells));
+            }
+        } finally {
+            // a promotion requested during the last step still gets its window
+            synchronized (run) {
+                run.stepping = false;
+                applyPendingPromotion(run);
+            }
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        // sweep over a few rules and initial densities
+        String[] rules = {"B3/S23", "B36/S23", "B3/S12345", "B2/S"};
+        EnsembleRunner ensemble = new EnsembleRunner();
+        for (int i = 0; i < runs; i++)
+            ensemble.add(size, size, LifeLikeRule.parse(rules[i % rules.length]), 0.1 + 0.8 * (i / rules.length % 9) / 8,
+                    i, steps);
+
+        if (!GraphicsEnvironment.isHeadless())
+            ensemble.promote(0, 4);
+
+        // final populations per rule
+        final AtomicLong[] finalPopulation = new AtomicLong[rules.length];
+        for (int i = 0; i < rules.length; i++)
+            finalPopulation[i] = new AtomicLong();
+        final int lastGeneration = steps;
+
+        long start = System.nanoTime();
+        ensemble.run(new SummaryListener() {
+            public void summary(Summary summary) {
+                if (summary.generation == lastGeneration)
+                    finalPopulation[summary.runId % finalPopulation.length].addAndGet(summary.population);
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+        ensemble.shutdown();
+
+        System.out.println(runs + " runs of " + size + "x" + size + " for " + steps + " steps in "
+                + elapsed / 1000000 + " ms");
+        for (int i = 0; i < rules.length; i++)
+            System.out.println(rules[i] + " total final population " + finalPopulation[i].get());
+    }
+}
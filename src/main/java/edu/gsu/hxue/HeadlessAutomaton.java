@@ -0,0 +1,123 @@
+package edu.gsu.hxue;
+
+import java.awt.*;
+
+/**
+ * A windowless Life-like automaton, cheap enough to run thousands at once. It can be promoted to a
+ * {@link CellularAutomataPresentation} at any time, after which every step is also drawn on screen.
+ * <p>
+ * Instances are not thread safe; each one is meant to be stepped by a single thread at a time.
+ */
+public class HeadlessAutomaton {
+    private static final Color ALIVE_COLOR = Color.black;
+    private static final Color DEAD_COLOR = Color.white;
+
+    private final int width;
+    private final int height;
+    private final LifeLikeRule rule;
+
+    // row-major states with an always dead halo row above and below
+    private byte[] current;
+    private byte[] next;
+
+    private int generation;
+    private int lastChanged;
+
+    private CellularAutomataPresentation view;
+
+    public HeadlessAutomaton(int width, int height, LifeLikeRule rule, double density, long seed) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Dimensions must be positive");
+        if (!LifeLikeRule.fitsInArray(width, height))
+            throw new IllegalArgumentException("A space of " + width + " x " + height + " cells is too large");
+
+        this.width = width;
+        this.height = height;
+        this.rule = rule;
+
+        current = new byte[width * (height + 2)];
+        next = new byte[width * (height + 2)];
+
+        // seeded by row, the same way SubdomainWorker does
+        for (int y = 0; y < height; y++)
+            LifeLikeRule.randomRow(current, (y + 1) * width, width, density, seed, y);
+    }
+
+    public int getXDim() {
+        return width;
+    }
+
+    public int getYDim() {
+        return height;
+    }
+
+    public LifeLikeRule getRule() {
+        return rule;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * The number of cells that changed in the last step.
+     */
+    public int getLastChanged() {
+        return lastChanged;
+    }
+
+    public boolean isAlive(int x, int y) {
+        return current[(y + 1) * width + x] != 0;
+    }
+
+    public long population() {
+        return LifeLikeRule.population(current, width, 1, height + 1);
+    }
+
+    /**
+     * Advance one generation.
+     *
+     * @return the number of cells that changed
+     */
+    public int step() {
+        lastChanged = rule.stepRows(current, next, width, 1, height + 1);
+
+        if (view != null && lastChanged > 0) {
+            for (int i = width; i < width * (height + 1); i++)
+                if (next[i] != current[i])
+                    view.setCellColor(i % width, i / width - 1, next[i] != 0 ? ALIVE_COLOR : DEAD_COLOR);
+            view.drawDirtyCellsInBuffer();
+            view.showBufferOnScreen();
+        }
+
+        byte[] t = current;
+        current = next;
+        next = t;
+        generation++;
+
+        if (view != null)
+            view.setTitle(rule + " generation " + generation);
+        return lastChanged;
+    }
+
+    public boolean isPromoted() {
+        return view != null;
+    }
+
+    /**
+     * Open a window showing this automaton. Later steps are drawn as they happen.
+     */
+    public CellularAutomataPresentation promote(double scalar) {
+        if (view != null)
+            return view;
+
+        view = new CellularAutomataPresentation(width, height, scalar);
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                view.setCellColor(x, y, isAlive(x, y) ? ALIVE_COLOR : DEAD_COLOR);
+        view.drawDirtyCellsInBuffer();
+        view.showBufferOnScreen();
+        view.setTitle(rule + " generation " + generation);
+        return view;
+    }
+}
@@ -0,0 +1,118 @@
+package edu.gsu.hxue;
+
+import java.util.SplittableRandom;
+
+/**
+ * A Life-like rule (outer totalistic, Moore neighbourhood) written in the usual "B3/S23" notation.
+ * <p>
+ * Cells are bytes, 0 for dead and 1 for alive, kept in row-major buffers that carry one halo row
+ * before the first and after the last row being stepped. Cells beyond the left and right edges are dead.
+ */
+public class LifeLikeRule {
+    public static final LifeLikeRule GAME_OF_LIFE = parse("B3/S23");
+
+    private final String ruleString;
+    private final boolean[] birth = new boolean[9];
+    private final boolean[] survival = new boolean[9];
+
+    private LifeLikeRule(String ruleString) {
+        this.ruleString = ruleString;
+    }
+
+    /**
+     * Parse a rule such as "B3/S23" or "B36/S23". Both parts are required, either may be empty ("B/S").
+     */
+    public static LifeLikeRule parse(String ruleString) {
+        String[] parts = ruleString.trim().toUpperCase().split("/", -1);
+        if (parts.length != 2 || !parts[0].startsWith("B") || !parts[1].startsWith("S"))
+            throw new IllegalArgumentException("Rule must look like B3/S23: " + ruleString);
+
+        LifeLikeRule rule = new LifeLikeRule(ruleString.trim().toUpperCase());
+        fill(rule.birth, parts[0].substring(1), ruleString);
+        fill(rule.survival, parts[1].substring(1), ruleString);
+        return rule;
+    }
+
+    private static void fill(boolean[] table, String digits, String ruleString) {
+        for (char c : digits.toCharArray()) {
+            if (c < '0' || c > '8')
+                throw new IllegalArgumentException("Neighbour counts must be 0-8: " + ruleString);
+            table[c - '0'] = true;
+        }
+    }
+
+    public byte nextState(byte state, int liveNeighbours) {
+        boolean alive = state != 0 ? survival[liveNeighbours] : birth[liveNeighbours];
+        return alive ? (byte) 1 : (byte) 0;
+    }
+
+    /**
+     * Step rows [fromRow, toRow) of src into dst. Rows fromRow - 1 and toRow are read but not written.
+     *
+     * @return the number of cells whose state changed
+     */
+    public int stepRows(byte[] src, byte[] dst, int width, int fromRow, int toRow) {
+        int changed = 0;
+        for (int y = fromRow; y < toRow; y++) {
+            int prev = (y - 1) * width;
+            int row = y * width;
+            int next = (y + 1) * width;
+
+            // sliding sums of the three columns around x
+            int left = 0;
+            int mid = src[prev] + src[row] + src[next];
+            for (int x = 0; x < width; x++) {
+                int right = x + 1 < width ? src[prev + x + 1] + src[row + x + 1] + src[next + x + 1] : 0;
+                byte state = src[row + x];
+                byte nextState = nextState(state, left + mid + right - state);
+                dst[row + x] = nextState;
+                if (nextState != state)
+                    changed++;
+                left = mid;
+                mid = right;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Whether rows of the given width, plus a halo row on each side, fit in one byte array.
+     */
+    public static boolean fitsInArray(int width, int rows) {
+        return (long) width * (rows + 2L) <= Integer.MAX_VALUE - 8;
+    }
+
+    /**
+     * Count the live cells in rows [fromRow, toRow).
+     */
+    public static long population(byte[] cells, int width, int fromRow, int toRow) {
+        long from = (long) fromRow * width;
+        long to = (long) toRow * width;
+        long population = 0;
+        for (long i = from; i < to; i++)
+            population += cells[(int) i];
+        return population;
+    }
+
+    /**
+     * Fill one row with live cells at the given density. The row's random stream depends only on the
+     * seed and the row's global index, so the result does not depend on how the space is split.
+     */
+    public static void randomRow(byte[] cells, int offset, int width, double density, long seed, long globalRow) {
+        SplittableRandom random = new SplittableRandom(mix64(mix64(seed) + globalRow * 0x9E3779B97F4A7C15L));
+        for (int x = 0; x < width; x++)
+            cells[offset + x] = random.nextDouble() < density ? (byte) 1 : (byte) 0;
+    }
+
+    // SplitMix64 finalizer, so that consecutive seeds and rows give unrelated streams
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public String toString() {
+        return ruleString;
+    }
+}
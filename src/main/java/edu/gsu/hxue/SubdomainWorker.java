@@ -0,0 +1,256 @@
+package edu.gsu.hxue;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.*;
+
+/**
+ * One process of a {@link DistributedAutomaton}. It owns a horizontal strip of the cell space,
+ * exchanges its boundary rows with the strips below and above every generation and sends
+ * downsampled tiles of its strip to the coordinator.
+ * <p>
+ * Each worker is given the coordinator's address, the port it listens on for the worker above it and
+ * the address of the worker below it, so workers can run on any machines that can reach each other.
+ */
+public class SubdomainWorker {
+    private final String coordinatorAddress;
+    private final int listenPort; // for the worker above, unused by the top worker
+    private final String lowerAddress; // null for the bottom worker
+    private final int rank;
+    private final int workers;
+    private final int width;
+    private final int firstRow;
+    private final int rows;
+    private final int generations;
+    private final int reportInterval;
+    private final int downsample;
+    private final LifeLikeRule rule;
+
+    // row-major strip states with one halo row on each side
+    private byte[] current;
+    private byte[] next;
+
+    public SubdomainWorker(String coordinatorAddress, int listenPort, String lowerAddress, int rank, int workers,
+                           int width, int height, int generations, int reportInterval, int downsample, long seed,
+                           double density, LifeLikeRule rule) {
+        if (rank > 0 && lowerAddress == null)
+            throw new IllegalArgumentException("Worker " + rank + " needs the address of the worker below it");
+
+        this.coordinatorAddress = coordinatorAddress;
+        this.listenPort = listenPort;
+        this.lowerAddress = lowerAddress;
+        this.rank = rank;
+        this.workers = workers;
+        this.width = width;
+        this.firstRow = stripStart(rank, workers, height, downsample);
+        this.rows = stripStart(rank + 1, workers, height, downsample) - firstRow;
+        this.generations = generations;
+        this.reportInterval = reportInterval;
+        this.downsample = downsample;
+        this.rule = rule;
+
+        if (rows <= 0)
+            throw new IllegalArgumentException("Worker " + rank + " has an empty strip");
+        if (!LifeLikeRule.fitsInArray(width, rows))
+            throw new IllegalArgumentException("A strip of " + width + " x " + rows + " cells is too large for one worker");
+
+        current = new byte[width * (rows + 2)];
+        next = new byte[width * (rows + 2)];
+
+        for (int y = 0; y < rows; y++)
+            LifeLikeRule.randomRow(current, (y + 1) * width, width, density, seed, firstRow + y);
+    }
+
+    /**
+     * The first global row owned by a worker. Strips start on multiples of the downsample factor so
+     * tiles never straddle two workers, and the blocks of downsample rows are shared out evenly, so
+     * every strip is non-empty as long as there are no more workers than blocks.
+     */
+    static int stripStart(int rank, int workers, int height, int downsample) {
+        return (int) Math.min(height, (long) rank * blocks(height, downsample) / workers * downsample);
+    }
+
+    static int blocks(int height, int downsample) {
+        return (int) ((height + (long) downsample - 1) / downsample);
+    }
+
+    static boolean isReportGeneration(int generation, int generations, int reportInterval) {
+        return generation % reportInterval == 0 || generation == generations;
+    }
+
+    public void run() throws IOException, InterruptedException {
+        ExecutorService receivers = Executors.newFixedThreadPool(2, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "halo-receiver-" + rank);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        // listen before connecting anywhere, so the worker above can always reach us
+        ServerSocket upperServer = rank < workers - 1 ? new ServerSocket(listenPort) : null;
+        try (Socket coordinator = connect(coordinatorAddress)) {
+            // identify ourselves before waiting on neighbours, so the coordinator can tell who is missing
+            DataOutputStream report = new DataOutputStream(new BufferedOutputStream(coordinator.getOutputStream()));
+            report.writeInt(rank);
+            report.flush();
+
+            try (HaloLink lower = rank > 0 ? new HaloLink(connect(lowerAddress)) : null;
+                 HaloLink upper = upperServer != null ? new HaloLink(upperServer.accept()) : null) {
+                if (upperServer != null)
+                    upperServer.close();
+
+                exchangeAndStep(report, lower, upper, receivers);
+            }
+        } finally {
+            if (upperServer != null)
+                upperServer.close();
+            receivers.shutdownNow();
+        }
+    }
+
+    private void exchangeAndStep(DataOutputStream report, HaloLink lower, HaloLink upper, ExecutorService receivers)
+            throws IOException, InterruptedException {
+        for (int generation = 0; ; generation++) {
+            if (isReportGeneration(generation, generations, reportInterval))
+                sendReport(report, generation);
+            if (generation == generations)
+                break;
+
+            // start receiving halos, then send our boundary rows
+            Future<?> fromLower = lower != null ? lower.receiveInto(receivers, current, 0, width, generation) : null;
+            Future<?> fromUpper = upper != null ? upper.receiveInto(receivers, current, (rows + 1) * width, width, generation) : null;
+            if (lower != null)
+                lower.send(current, width, width, generation);
+            if (upper != null)
+                upper.send(current, rows * width, width, generation);
+
+            // the interior does not touch the halo rows, so it overlaps the exchange
+            rule.stepRows(current, next, width, 2, rows);
+
+            await(fromLower);
+            await(fromUpper);
+            rule.stepRows(current, next, width, 1, 2);
+            if (rows > 1)
+                rule.stepRows(current, next, width, rows, rows + 1);
+
+            byte[] t = current;
+            current = next;
+            next = t;
+        }
+    }
+
+    private void sendReport(DataOutputStream report, int generation) throws IOException {
+        int tileWidth = (width + downsample - 1) / downsample;
+        int tileRows = (rows + downsample - 1) / downsample;
+        int[] counts = new int[tileWidth * tileRows];
+        int[] areas = new int[tileWidth * tileRows];
+        for (int y = 0; y < rows; y++)
+            for (int x = 0; x < width; x++) {
+                int tile = (y / downsample) * tileWidth + x / downsample;
+                counts[tile] += current[(y + 1) * width + x];
+                areas[tile]++;
+            }
+
+        byte[] tiles = new byte[counts.length];
+        for (int i = 0; i < tiles.length; i++)
+            tiles[i] = (byte) (counts[i] * 255 / areas[i]);
+
+        report.writeInt(generation);
+        report.writeLong(LifeLikeRule.population(current, width, 1, rows + 1));
+        report.writeInt(tileRows);
+        report.write(tiles);
+        report.flush();
+    }
+
+    private static void await(Future<?> future) throws IOException, InterruptedException {
+        if (future == null)
+            return;
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("Halo exchange failed", e.getCause());
+        }
+    }
+
+    /**
+     * Connect to a peer, given as host:port, that may not have started listening yet.
+     */
+    static Socket connect(String address) throws IOException, InterruptedException {
+        int colon = address.lastIndexOf(':');
+        if (colon < 0)
+            throw new IllegalArgumentException("Address must look like host:port: " + address);
+        String host = address.substring(0, colon);
+        int port = Integer.parseInt(address.substring(colon + 1));
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                Socket socket = new Socket(host, port);
+                socket.setTcpNoDelay(true);
+                return socket;
+            } catch (ConnectException e) {
+                if (attempt >= 100)
+                    throw e;
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    /**
+     * A socket to a neighbouring worker carrying one halo row per generation in each direction.
+     */
+    private static class HaloLink implements Closeable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        HaloLink(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void send(byte[] cells, int offset, int length, int generation) throws IOException {
+            out.writeInt(generation);
+            out.write(cells, offset, length);
+            out.flush();
+        }
+
+        Future<?> receiveInto(ExecutorService receivers, final byte[] cells, final int offset, final int length,
+                              final int generation) {
+            return receivers.submit(new Callable<Void>() {
+                public Void call() throws IOException {
+                    int received = in.readInt();
+                    if (received != generation)
+                        throw new IOException("Expected halo of generation " + generation + " but got " + received);
+                    in.readFully(cells, offset, length);
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 13) {
+            System.err.println("Usage: SubdomainWorker coordinatorHost:port listenPort|- lowerHost:port|- rank workers "
+                    + "width height generations reportInterval downsample seed density rule");
+            System.exit(2);
+        }
+
+        new SubdomainWorker(args[0], "-".equals(args[1]) ? -1 : Integer.parseInt(args[1]),
+                "-".equals(args[2]) ? null : args[2], Integer.parseInt(args[3]), Integer.parseInt(args[4]),
+                Integer.parseInt(args[5]), Integer.parseInt(args[6]), Integer.parseInt(args[7]),
+                Integer.parseInt(args[8]), Integer.parseInt(args[9]), Long.parseLong(args[10]),
+                Double.parseDouble(args[11]), LifeLikeRule.parse(args[12])).run();
+    }
+}
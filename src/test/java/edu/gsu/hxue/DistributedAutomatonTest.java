@@ -0,0 +1,158 @@
+package edu.gsu.hxue;
+
+import junit.framework.TestCase;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.BindException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs worker processes on this machine, on ports found free when each test starts.
+ */
+public class DistributedAutomatonTest extends TestCase {
+    /**
+     * Find a base port such that it and the next count - 1 ports are free.
+     */
+    static int freeBasePort(int count) throws IOException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            List<ServerSocket> held = new ArrayList<ServerSocket>();
+            try {
+                ServerSocket first = new ServerSocket(0);
+                held.add(first);
+                int basePort = first.getLocalPort();
+                if (basePort + count - 1 > 65535)
+                    continue;
+                for (int port = basePort + 1; port < basePort + count; port++)
+                    held.add(new ServerSocket(port));
+                return basePort;
+            } catch (BindException e) {
+                // one of the following ports is taken, try another range
+            } finally {
+                for (ServerSocket socket : held)
+                    socket.close();
+            }
+        }
+        throw new IOException("No range of " + count + " free ports");
+    }
+
+    private static long population(int width, int height, int workers, int generations, int downsample)
+            throws Exception {
+        return new DistributedAutomaton(width, height, workers, generations, generations, downsample,
+                LifeLikeRule.GAME_OF_LIFE, 0.3, 1, freeBasePort(workers)).run();
+    }
+
+    public void testStripsMatchSingleProcess() throws Exception {
+        long single = population(200, 97, 1, 30, 4);
+        assertTrue(single > 0);
+        assertEquals(single, population(200, 97, 3, 30, 4));
+    }
+
+    public void testThinStripsMatchSingleProcess() throws Exception {
+        // strips of 1, 2 and 2 rows, where the boundary rows are the whole strip
+        assertEquals(1, SubdomainWorker.stripStart(1, 3, 5, 1));
+        assertEquals(3, SubdomainWorker.stripStart(2, 3, 5, 1));
+
+        long single = population(40, 5, 1, 5, 1);
+        assertTrue(single > 0);
+        assertEquals(single, population(40, 5, 3, 5, 1));
+    }
+
+    public void testEveryWorkerGetsRowsWhenBlocksDoNotDivideEvenly() throws Exception {
+        // 25 blocks of 4 rows over 6 workers, which used to leave the last worker without rows
+        int previous = 0;
+        for (int rank = 1; rank <= 6; rank++) {
+            int start = SubdomainWorker.stripStart(rank, 6, 100, 4);
+            assertTrue(start > previous);
+            assertEquals(0, start % 4);
+            previous = start;
+        }
+        assertEquals(100, previous);
+
+        long single = population(100, 100, 1, 10, 4);
+        assertEquals(single, population(100, 100, 6, 10, 4));
+    }
+
+    public void testRejectsMoreWorkersThanBlocks() {
+        try {
+            new DistributedAutomaton(100, 100, 26, 1, 1, 4, LifeLikeRule.GAME_OF_LIFE, 0.3, 1, 5000);
+            fail("Accepted 26 workers for 25 blocks");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testOverviewStaysSmallForHugeSpaces() {
+        DistributedAutomaton automaton = new DistributedAutomaton(1 << 18, 1 << 18, 4096, 1, 1, 4,
+                LifeLikeRule.GAME_OF_LIFE, 0.3, 1, 5000);
+        assertTrue(automaton.getViewWidth() <= DistributedAutomaton.MAX_VIEW_CELLS);
+        assertTrue(automaton.getViewHeight() <= DistributedAutomaton.MAX_VIEW_CELLS);
+        assertTrue(automaton.getViewWidth() > DistributedAutomaton.MAX_VIEW_CELLS / 2);
+    }
+
+    public void testWorkersAreToldTheirNeighboursHosts() {
+        DistributedAutomaton automaton = new DistributedAutomaton(40, 40, 3, 1, 1, 1,
+                LifeLikeRule.GAME_OF_LIFE, 0.3, 1, 5000);
+        automaton.setWorkerHosts("coordinator", new String[]{"a", "b", "c"});
+
+        assertEquals(Arrays.asList("coordinator:5000", "5001", "-"), automaton.workerArguments(0).subList(0, 3));
+        assertEquals(Arrays.asList("coordinator:5000", "5002", "a:5001"), automaton.workerArguments(1).subList(0, 3));
+        assertEquals(Arrays.asList("coordinator:5000", "-", "b:5002"), automaton.workerArguments(2).subList(0, 3));
+    }
+
+    public void testRejectsDuplicateAndUnknownRanks() throws Exception {
+        assertRankRejected(new int[]{0, 0});
+        assertRankRejected(new int[]{2});
+        assertRankRejected(new int[]{-1});
+    }
+
+    private static void assertRankRejected(int[] ranks) throws Exception {
+        final int basePort = freeBasePort(1);
+        final DistributedAutomaton automaton = new DistributedAutomaton(40, 40, 2, 1, 1, 1,
+                LifeLikeRule.GAME_OF_LIFE, 0.3, 1, basePort);
+        automaton.setWorkerHosts("localhost", new String[]{"localhost", "localhost"});
+
+        final Exception[] failure = new Exception[1];
+        Thread coordinator = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    automaton.run();
+                } catch (Exception e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        coordinator.start();
+
+        // pretend to be workers that send the given ranks
+        List<Socket> sockets = new ArrayList<Socket>();
+        try {
+            for (int rank : ranks) {
+                Socket socket = SubdomainWorker.connect("localhost:" + basePort);
+                sockets.add(socket);
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeInt(rank);
+                out.flush();
+            }
+            coordinator.join(10000);
+        } finally {
+            for (Socket socket : sockets)
+                socket.close();
+        }
+
+        assertFalse(coordinator.isAlive());
+        assertTrue(String.valueOf(failure[0]), failure[0] instanceof IOException);
+        assertTrue(failure[0].getMessage().contains("rank " + ranks[ranks.length - 1]));
+    }
+
+    public void testRejectsStripsTooLargeForOneArray() {
+        try {
+            new DistributedAutomaton(1 << 16, 1 << 16, 1, 1, 1, 1, LifeLikeRule.GAME_OF_LIFE, 0.3, 1, 5000);
+            fail("Accepted a strip of 2^32 cells");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package edu.gsu.hxue;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EnsembleRunnerTest extends TestCase {
+    private EnsembleRunner ensemble;
+
+    @Override
+    protected void setUp() {
+        ensemble = new EnsembleRunner(4);
+    }
+
+    @Override
+    protected void tearDown() throws InterruptedException {
+        ensemble.shutdown();
+        ensemble.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public void testEveryRunReportsEachGenerationOfItsBudget() throws InterruptedException {
+        int[] budgets = {0, 1, 10, 25};
+        for (int i = 0; i < budgets.length; i++)
+            assertEquals(i, ensemble.add(16, 16, LifeLikeRule.GAME_OF_LIFE, 0.3, i, budgets[i]));
+
+        final List<EnsembleRunner.Summary> summaries =
+                Collections.synchronizedList(new ArrayList<EnsembleRunner.Summary>());
+        ensemble.run(new EnsembleRunner.SummaryListener() {
+            public void summary(EnsembleRunner.Summary summary) {
+                summaries.add(summary);
+            }
+        });
+
+        for (int i = 0; i < budgets.length; i++) {
+            int expectedGeneration = 0;
+            for (EnsembleRunner.Summary summary : summaries)
+                if (summary.runId == i) {
+                    assertEquals(expectedGeneration++, summary.generation);
+                    assertEquals(summary.changed / 256.0, summary.changeRate, 1e-12);
+                }
+            assertEquals(budgets[i] + 1, expectedGeneration);
+        }
+    }
+
+    public void testFailureStopsOtherRunsBeforeReturning() throws InterruptedException {
+        for (int i = 0; i < 16; i++)
+            ensemble.add(16, 16, LifeLikeRule.GAME_OF_LIFE, 0.3, i, 100000);
+
+        final AtomicBoolean returned = new AtomicBoolean();
+        final AtomicInteger lateSummaries = new AtomicInteger();
+        try {
+            ensemble.run(new EnsembleRunner.SummaryListener() {
+                public void summary(EnsembleRunner.Summary summary) {
+                    if (returned.get())
+                        lateSummaries.incrementAndGet();
+                    if (summary.runId == 0 && summary.generation == 5)
+                        throw new RuntimeException("listener failed");
+                }
+            });
+            fail("The listener failure was swallowed");
+        } catch (IllegalStateException expected) {
+            // ForkJoinTask.get may wrap the listener's exception in a copy of the same type
+            Throwable cause = expected.getCause();
+            while (cause.getCause() != null)
+                cause = cause.getCause();
+            assertEquals("listener failed", cause.getMessage());
+        }
+        returned.set(true);
+
+        ensemble.shutdown();
+        assertTrue(ensemble.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, lateSummaries.get());
+    }
+
+    public void testRunsOnlyOnce() throws InterruptedException {
+        ensemble.add(8, 8, LifeLikeRule.GAME_OF_LIFE, 0.3, 1, 3);
+        EnsembleRunner.SummaryListener ignore = new EnsembleRunner.SummaryListener() {
+            public void summary(EnsembleRunner.Summary summary) {
+            }
+        };
+        ensemble.run(ignore);
+
+        try {
+            ensemble.run(ignore);
+            fail("Ran the ensemble twice");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            ensemble.add(8, 8, LifeLikeRule.GAME_OF_LIFE, 0.3, 1, 3);
+            fail("Added a run after the ensemble was run");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    public void testInterruptStopsRunsBeforeReturning() throws InterruptedException {
+        for (int i = 0; i < 16; i++)
+            ensemble.add(16, 16, LifeLikeRule.GAME_OF_LIFE, 0.3, i, 1000000);
+
+        final AtomicBoolean returned = new AtomicBoolean();
+        final AtomicInteger lateSummaries = new AtomicInteger();
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final AtomicInteger summaries = new AtomicInteger();
+        Thread runner = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    ensemble.run(new EnsembleRunner.SummaryListener() {
+                        public void summary(EnsembleRunner.Summary summary) {
+                            summaries.incrementAndGet();
+                            if (returned.get())
+                                lateSummaries.incrementAndGet();
+                        }
+                    });
+                } catch (InterruptedException e) {
+                    interrupted.set(Thread.currentThread().isInterrupted());
+                }
+                returned.set(true);
+            }
+        });
+        runner.start();
+        while (summaries.get() < 100)
+            Thread.sleep(1);
+        runner.interrupt();
+        runner.join(10000);
+
+        assertFalse(runner.isAlive());
+        assertTrue("interrupt restored", interrupted.get());
+        ensemble.shutdown();
+        assertTrue(ensemble.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, lateSummaries.get());
+    }
+}
@@ -0,0 +1,45 @@
+package edu.gsu.hxue;
+
+import junit.framework.TestCase;
+
+public class HeadlessAutomatonTest extends TestCase {
+    public void testConsecutiveSeedsDoNotShareRows() {
+        HeadlessAutomaton a = new HeadlessAutomaton(64, 64, LifeLikeRule.GAME_OF_LIFE, 0.3, 0);
+        HeadlessAutomaton b = new HeadlessAutomaton(64, 64, LifeLikeRule.GAME_OF_LIFE, 0.3, 1);
+
+        int sharedRows = 0;
+        for (int y = 0; y < 64; y++)
+            for (int shift = -63; shift <= 63; shift++)
+                if (y + shift >= 0 && y + shift < 64 && sameRow(a, y + shift, b, y))
+                    sharedRows++;
+        assertEquals(0, sharedRows);
+    }
+
+    private static boolean sameRow(HeadlessAutomaton a, int ya, HeadlessAutomaton b, int yb) {
+        for (int x = 0; x < a.getXDim(); x++)
+            if (a.isAlive(x, ya) != b.isAlive(x, yb))
+                return false;
+        return true;
+    }
+
+    public void testStepReportsChangesAndGeneration() {
+        HeadlessAutomaton automaton = new HeadlessAutomaton(32, 32, LifeLikeRule.GAME_OF_LIFE, 0.3, 5);
+        long before = automaton.population();
+        int changed = automaton.step();
+
+        assertEquals(1, automaton.getGeneration());
+        assertEquals(changed, automaton.getLastChanged());
+        assertTrue(changed > 0);
+        assertTrue(Math.abs(automaton.population() - before) <= changed);
+    }
+
+    public void testMatchesDistributedAutomaton() throws Exception {
+        HeadlessAutomaton automaton = new HeadlessAutomaton(120, 60, LifeLikeRule.GAME_OF_LIFE, 0.3, 1);
+        for (int i = 0; i < 15; i++)
+            automaton.step();
+
+        long distributed = new DistributedAutomaton(120, 60, 2, 15, 15, 4, LifeLikeRule.GAME_OF_LIFE, 0.3, 1,
+                DistributedAutomatonTest.freeBasePort(2)).run();
+        assertEquals(distributed, automaton.population());
+    }
+}
@@ -0,0 +1,109 @@
+package edu.gsu.hxue;
+
+import junit.framework.TestCase;
+
+public class LifeLikeRuleTest extends TestCase {
+    private static final int WIDTH = 5;
+    private static final int HEIGHT = 5;
+
+    private byte[] space() {
+        return new byte[WIDTH * (HEIGHT + 2)];
+    }
+
+    private static void set(byte[] cells, int x, int y) {
+        cells[(y + 1) * WIDTH + x] = 1;
+    }
+
+    private static boolean alive(byte[] cells, int x, int y) {
+        return cells[(y + 1) * WIDTH + x] != 0;
+    }
+
+    public void testParse() {
+        LifeLikeRule rule = LifeLikeRule.parse("b36/s23");
+        assertEquals("B36/S23", rule.toString());
+        assertEquals(1, rule.nextState((byte) 0, 6));
+        assertEquals(0, rule.nextState((byte) 0, 2));
+        assertEquals(1, rule.nextState((byte) 1, 2));
+        assertEquals(0, rule.nextState((byte) 1, 4));
+
+        LifeLikeRule empty = LifeLikeRule.parse("B/S");
+        for (int n = 0; n <= 8; n++) {
+            assertEquals(0, empty.nextState((byte) 0, n));
+            assertEquals(0, empty.nextState((byte) 1, n));
+        }
+    }
+
+    public void testParseRejectsMalformedRules() {
+        String[] malformed = {"B3", "S23/B3", "B9/S23", "B3/S2x", "B3/S23/C2"};
+        for (String rule : malformed) {
+            try {
+                LifeLikeRule.parse(rule);
+                fail("Accepted " + rule);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    public void testBlinkerOscillates() {
+        byte[] cells = space();
+        set(cells, 1, 2);
+        set(cells, 2, 2);
+        set(cells, 3, 2);
+
+        byte[] next = space();
+        assertEquals(4, LifeLikeRule.GAME_OF_LIFE.stepRows(cells, next, WIDTH, 1, HEIGHT + 1));
+        for (int y = 0; y < HEIGHT; y++)
+            for (int x = 0; x < WIDTH; x++)
+                assertEquals("cell " + x + "," + y, x == 2 && y >= 1 && y <= 3, alive(next, x, y));
+
+        byte[] back = space();
+        assertEquals(4, LifeLikeRule.GAME_OF_LIFE.stepRows(next, back, WIDTH, 1, HEIGHT + 1));
+        for (int i = 0; i < cells.length; i++)
+            assertEquals(cells[i], back[i]);
+    }
+
+    public void testBlockIsStill() {
+        byte[] cells = space();
+        set(cells, 0, 0);
+        set(cells, 1, 0);
+        set(cells, 0, 1);
+        set(cells, 1, 1);
+
+        byte[] next = space();
+        assertEquals(0, LifeLikeRule.GAME_OF_LIFE.stepRows(cells, next, WIDTH, 1, HEIGHT + 1));
+        assertEquals(4, LifeLikeRule.population(next, WIDTH, 1, HEIGHT + 1));
+    }
+
+    public void testEdgeColumnsAreDead() {
+        // a vertical blinker on the left edge loses the cell that would fall outside the space
+        byte[] cells = space();
+        set(cells, 0, 1);
+        set(cells, 0, 2);
+        set(cells, 0, 3);
+
+        byte[] next = space();
+        LifeLikeRule.GAME_OF_LIFE.stepRows(cells, next, WIDTH, 1, HEIGHT + 1);
+        assertEquals(2, LifeLikeRule.population(next, WIDTH, 1, HEIGHT + 1));
+        assertTrue(alive(next, 0, 2));
+        assertTrue(alive(next, 1, 2));
+        assertFalse("no wrap around to the right edge", alive(next, WIDTH - 1, 2));
+    }
+
+    public void testRandomRowDependsOnlyOnSeedAndRow() {
+        byte[] a = new byte[1000];
+        byte[] b = new byte[1000];
+        LifeLikeRule.randomRow(a, 0, 500, 0.3, 1, 7);
+        LifeLikeRule.randomRow(b, 500, 500, 0.3, 1, 7);
+        for (int x = 0; x < 500; x++)
+            assertEquals(a[x], b[500 + x]);
+
+        // column 0 across many rows should be near the density, not stuck
+        byte[] row = new byte[1];
+        int live = 0;
+        for (int y = 0; y < 2000; y++) {
+            LifeLikeRule.randomRow(row, 0, 1, 0.3, 1, y);
+            live += row[0];
+        }
+        assertTrue("column 0 has " + live + " live cells", live > 500 && live < 700);
+    }
+}